@@ -1,10 +1,10 @@
 package com.marc_hg.kollabspace.features.chat;
 
+import com.marc_hg.kollabspace.infrastructure.websocket.TopicSequencer;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,16 +15,18 @@ import java.util.List;
 @Slf4j
 public class ChatController {
     private final ChatService chatService;
+    private final TopicSequencer topicSequencer;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, TopicSequencer topicSequencer) {
         this.chatService = chatService;
+        this.topicSequencer = topicSequencer;
     }
 
     @MessageMapping("/chat/{roomId}/send")
-    @SendTo("/topic/chat/{roomId}")
-    public ChatMessage sendMessage(@DestinationVariable String roomId, @Valid ChatMessageRequestDTO chatMessageRequestDTO) {
+    public void sendMessage(@DestinationVariable String roomId, @Valid ChatMessageRequestDTO chatMessageRequestDTO) {
         log.info("Received message {} in room {}", chatMessageRequestDTO, roomId);
-        return chatService.addMessage(roomId, chatMessageRequestDTO);
+        ChatMessage message = chatService.addMessage(roomId, chatMessageRequestDTO);
+        topicSequencer.publish("/topic/chat/" + roomId, message);
     }
 
     @GetMapping("/api/chat/{roomId}/history")
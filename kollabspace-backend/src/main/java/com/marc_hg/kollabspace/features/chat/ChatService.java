@@ -1,5 +1,6 @@
 package com.marc_hg.kollabspace.features.chat;
 
+import com.marc_hg.kollabspace.infrastructure.websocket.TopicSnapshotProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -7,7 +8,7 @@ import java.util.List;
 
 @Service // Singleton
 @Slf4j
-public class ChatService {
+public class ChatService implements TopicSnapshotProvider {
     private final ChatRepository chatRepository;
 
     public ChatService(ChatRepository chatRepository) {
@@ -25,4 +26,14 @@ public class ChatService {
         chatRepository.save(message);
         return message;
     }
+
+    @Override
+    public String topicPrefix() {
+        return "/topic/chat/";
+    }
+
+    @Override
+    public Object snapshot(String roomId) {
+        return getMessages(roomId);
+    }
 }
@@ -1,31 +1,32 @@
 package com.marc_hg.kollabspace.features.document;
 
+import com.marc_hg.kollabspace.infrastructure.websocket.TopicSequencer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Controller;
 
 @Controller
 @Slf4j
 public class DocumentController {
     private final DocumentService documentService;
+    private final TopicSequencer topicSequencer;
     
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, TopicSequencer topicSequencer) {
         this.documentService = documentService;
+        this.topicSequencer = topicSequencer;
     }
     
     @MessageMapping("/document/{docId}/update")
-    @SendTo("/topic/document/{docId}")
-    public Document updateDocument(@DestinationVariable String docId, String content) {
+    public void updateDocument(@DestinationVariable String docId, String content) {
         log.info("Updating document with id {}", docId);
-        return documentService.updateDocument(docId, content);
+        topicSequencer.publish("/topic/document/" + docId, documentService.updateDocument(docId, content));
     }
     
     @MessageMapping("/document/{docId}/get")
-    @SendTo("/topic/document/{docId}")
-    public Document getDocument(@DestinationVariable String docId) {
+    public void getDocument(@DestinationVariable String docId) {
         log.info("Getting document with id {}", docId);
-        return documentService.getDocument(docId);
+        // A read: sent as a snapshot so it neither takes a sequence number nor a replay buffer slot
+        topicSequencer.publishSnapshot("/topic/document/" + docId, documentService.getDocument(docId));
     }
 }
@@ -1,11 +1,12 @@
 package com.marc_hg.kollabspace.features.document;
 
+import com.marc_hg.kollabspace.infrastructure.websocket.TopicSnapshotProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 @Service
 @Slf4j
-public class DocumentService {
+public class DocumentService implements TopicSnapshotProvider {
     private final DocumentRepository documentRepository;
 
     public DocumentService(DocumentRepository documentRepository) {
@@ -26,4 +27,14 @@ public class DocumentService {
         log.info("Updated document with id {}", id);
         return documentRepository.save(document);
     }
+
+    @Override
+    public String topicPrefix() {
+        return "/topic/document/";
+    }
+
+    @Override
+    public Object snapshot(String docId) {
+        return getDocument(docId);
+    }
 }
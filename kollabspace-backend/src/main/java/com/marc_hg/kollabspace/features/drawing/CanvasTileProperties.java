@@ -0,0 +1,25 @@
+package com.marc_hg.kollabspace.features.drawing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Raster tile pyramid settings. Zoom level maxZoom renders canvas pixels 1:1,
+ * every level below halves the resolution.
+ */
+@Component
+@ConfigurationProperties(prefix = "drawing.tiles")
+@Data
+public class CanvasTileProperties {
+    private int tileSize = 256;
+
+    private int maxZoom = 4;
+
+    // A miss renders the whole metaTileSize x metaTileSize block around the tile from one stroke load
+    private int metaTileSize = 4;
+
+    // Upper bound on cached tile memory across all canvases (LRU eviction). Cached tiles are
+    // kept as PNG bytes; only tiles patched since their last request also hold a raw image.
+    private long cacheMaxBytes = 32L * 1024 * 1024;
+}
@@ -0,0 +1,452 @@
+package com.marc_hg.kollabspace.features.drawing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders canvases into a pyramid of PNG tiles so clients can load a busy canvas
+ * without downloading and re-rasterizing every stroke.
+ * Cached tiles are patched in place when a stroke is added and re-rendered lazily
+ * when a stroke is deleted or the canvas is cleared.
+ */
+@Service
+@Slf4j
+public class CanvasTileService {
+    private static final int RENDER_LOCK_STRIPES = 64;
+
+    private final DrawingRepository drawingRepository;
+    private final int tileSize;
+    private final int maxZoom;
+    private final int metaTileSize;
+    private final long cacheMaxBytes;
+
+    // Access-ordered LRU and its total weight, both guarded by the map's monitor
+    private final LinkedHashMap<TileKey, Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    // Cached keys per canvas, so a stroke change only visits tiles that exist; guarded by the tiles monitor
+    private final Map<String, Set<TileKey>> canvasTileKeys = new HashMap<>();
+
+    // Bumped on every change; drives the tile ETag and keeps a render that raced with a change out of the cache
+    private final ConcurrentHashMap<String, AtomicLong> canvasVersions = new ConcurrentHashMap<>();
+    // Bounding box of all strokes, only for canvases that have strokes and have been rendered.
+    // Written under the tiles monitor so a render cannot overwrite the union made for a newer stroke.
+    private final ConcurrentHashMap<String, double[]> canvasExtents = new ConcurrentHashMap<>();
+    // Serializes renders of the same canvas so concurrent misses share one stroke load
+    private final Object[] renderLocks = new Object[RENDER_LOCK_STRIPES];
+    // Versions restart with the process, so ETags from a previous run must not match
+    private final String etagPrefix = UUID.randomUUID().toString().substring(0, 8);
+
+    public CanvasTileService(DrawingRepository drawingRepository, CanvasTileProperties properties) {
+        this.drawingRepository = drawingRepository;
+        this.tileSize = properties.getTileSize();
+        this.maxZoom = properties.getMaxZoom();
+        this.metaTileSize = properties.getMetaTileSize();
+        this.cacheMaxBytes = properties.getCacheMaxBytes();
+        for (int i = 0; i < renderLocks.length; i++) {
+            renderLocks[i] = new Object();
+        }
+    }
+
+    public boolean isValidZoom(int z) {
+        return z >= 0 && z <= maxZoom;
+    }
+
+    public String getETag(String canvasId) {
+        AtomicLong version = canvasVersions.get(canvasId);
+        return "\"" + etagPrefix + "-" + (version == null ? 0 : version.get()) + "\"";
+    }
+
+    /**
+     * PNG bytes of the tile, or null if the tile lies outside the area covered by strokes.
+     */
+    public byte[] getTile(String canvasId, int z, int x, int y) {
+        TileKey key = new TileKey(canvasId, z, x, y);
+        byte[] png = cachedPng(key);
+        if (png != null) {
+            return png;
+        }
+
+        double[] knownExtent = canvasExtents.get(canvasId);
+        if (knownExtent != null && !intersects(key, knownExtent)) {
+            return null;
+        }
+
+        synchronized (renderLock(canvasId)) {
+            // Another request may have rendered this block while we waited
+            png = cachedPng(key);
+            if (png != null) {
+                return png;
+            }
+            return renderBlock(key);
+        }
+    }
+
+    public void strokeAdded(DrawingStroke stroke) {
+        version(stroke.getCanvasId()).incrementAndGet();
+        double[] bounds = bounds(stroke);
+        if (bounds == null) {
+            return;
+        }
+
+        List<Tile> touched = new ArrayList<>();
+        synchronized (tiles) {
+            canvasExtents.computeIfPresent(stroke.getCanvasId(), (key, extent) -> union(extent, bounds));
+            for (TileKey key : cachedKeys(stroke.getCanvasId(), bounds)) {
+                touched.add(tiles.get(key));
+            }
+        }
+        for (Tile tile : touched) {
+            tile.draw(stroke);
+        }
+        synchronized (tiles) {
+            touched.forEach(this::reweigh);
+            evictOverflow();
+        }
+    }
+
+    public void strokeDeleted(DrawingStroke stroke) {
+        version(stroke.getCanvasId()).incrementAndGet();
+        double[] bounds = bounds(stroke);
+        if (bounds == null) {
+            return;
+        }
+        // Strokes underneath may show through, so the affected tiles are rendered again on demand.
+        // The known extent is left as is: it can only be too large, never too small.
+        synchronized (tiles) {
+            cachedKeys(stroke.getCanvasId(), bounds).forEach(this::evict);
+        }
+    }
+
+    public void canvasCleared(String canvasId) {
+        version(canvasId).incrementAndGet();
+        synchronized (tiles) {
+            canvasExtents.remove(canvasId);
+            Set<TileKey> keys = canvasTileKeys.remove(canvasId);
+            if (keys != null) {
+                for (TileKey key : keys) {
+                    cachedBytes -= tiles.remove(key).accountedBytes;
+                }
+            }
+        }
+        log.info("Dropped cached tiles for canvas {}", canvasId);
+    }
+
+    private byte[] cachedPng(TileKey key) {
+        Tile tile;
+        synchronized (tiles) {
+            tile = tiles.get(key);
+        }
+        if (tile == null) {
+            return null;
+        }
+        byte[] png = tile.encode();
+        synchronized (tiles) {
+            reweigh(tile);
+        }
+        return png;
+    }
+
+    // Renders every missing tile of the metatile block containing key from a single stroke load
+    private byte[] renderBlock(TileKey key) {
+        String canvasId = key.canvasId();
+        AtomicLong versionCounter = canvasVersions.get(canvasId);
+        long version = versionCounter == null ? 0 : versionCounter.get();
+
+        List<DrawingStroke> strokes = drawingRepository.findByCanvasId(canvasId);
+        List<double[]> strokeBounds = new ArrayList<>(strokes.size());
+        double[] extent = null;
+        for (DrawingStroke stroke : strokes) {
+            double[] bounds = bounds(stroke);
+            strokeBounds.add(bounds);
+            if (bounds != null) {
+                extent = extent == null ? bounds : union(extent, bounds);
+            }
+        }
+        if (extent == null) {
+            return null;
+        }
+        if (!intersects(key, extent)) {
+            publishExtent(canvasId, version, extent);
+            return null;
+        }
+
+        int blockX = Math.floorDiv(key.x(), metaTileSize) * metaTileSize;
+        int blockY = Math.floorDiv(key.y(), metaTileSize) * metaTileSize;
+        List<Tile> rendered = new ArrayList<>();
+        Tile requested = null;
+        for (int x = blockX; x < blockX + metaTileSize; x++) {
+            for (int y = blockY; y < blockY + metaTileSize; y++) {
+                TileKey tileKey = new TileKey(canvasId, key.z(), x, y);
+                if (!intersects(tileKey, extent) || (!tileKey.equals(key) && isCached(tileKey))) {
+                    continue;
+                }
+                Tile tile = new Tile(tileKey);
+                for (int i = 0; i < strokes.size(); i++) {
+                    if (tile.intersects(strokeBounds.get(i))) {
+                        tile.draw(strokes.get(i));
+                    }
+                }
+                tile.encode();
+                rendered.add(tile);
+                if (tileKey.equals(key)) {
+                    requested = tile;
+                }
+            }
+        }
+
+        synchronized (tiles) {
+            if (publishExtent(canvasId, version, extent)) {
+                for (Tile tile : rendered) {
+                    evict(tile.key);
+                    tiles.put(tile.key, tile);
+                    canvasTileKeys.computeIfAbsent(canvasId, id -> new HashSet<>()).add(tile.key);
+                    reweigh(tile);
+                }
+                evictOverflow();
+            }
+        }
+        log.info("Rendered {} tiles around {}/{}/{} of canvas {} from {} strokes",
+                rendered.size(), key.z(), key.x(), key.y(), canvasId, strokes.size());
+        return requested.encode();
+    }
+
+    // Only a render that saw the current version may publish its extent; false if the canvas changed meanwhile
+    private boolean publishExtent(String canvasId, long version, double[] extent) {
+        synchronized (tiles) {
+            AtomicLong current = canvasVersions.get(canvasId);
+            if ((current == null ? 0 : current.get()) != version) {
+                return false;
+            }
+            canvasExtents.put(canvasId, extent);
+            return true;
+        }
+    }
+
+    private boolean isCached(TileKey key) {
+        synchronized (tiles) {
+            return tiles.containsKey(key);
+        }
+    }
+
+    // Callers hold the tiles monitor
+    private void reweigh(Tile tile) {
+        if (tiles.get(tile.key) != tile) {
+            return;
+        }
+        long bytes = tile.bytes();
+        cachedBytes += bytes - tile.accountedBytes;
+        tile.accountedBytes = bytes;
+    }
+
+    // Callers hold the tiles monitor
+    private void evict(TileKey key) {
+        Tile tile = tiles.remove(key);
+        if (tile != null) {
+            cachedBytes -= tile.accountedBytes;
+            forgetKey(key);
+        }
+    }
+
+    // Callers hold the tiles monitor
+    private void evictOverflow() {
+        Iterator<Tile> eldest = tiles.values().iterator();
+        while (cachedBytes > cacheMaxBytes && eldest.hasNext()) {
+            Tile tile = eldest.next();
+            cachedBytes -= tile.accountedBytes;
+            eldest.remove();
+            forgetKey(tile.key);
+        }
+    }
+
+    // Callers hold the tiles monitor
+    private void forgetKey(TileKey key) {
+        Set<TileKey> keys = canvasTileKeys.get(key.canvasId());
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            canvasTileKeys.remove(key.canvasId());
+        }
+    }
+
+    // Cached tiles of the canvas that the bounds touch. Bounded by the cache size whatever the
+    // stroke looks like, unlike walking every tile position inside the bounds. Callers hold the tiles monitor.
+    private List<TileKey> cachedKeys(String canvasId, double[] bounds) {
+        Set<TileKey> keys = canvasTileKeys.get(canvasId);
+        if (keys == null) {
+            return List.of();
+        }
+        return keys.stream()
+                .filter(key -> intersects(key, bounds))
+                .toList();
+    }
+
+    private boolean intersects(TileKey key, double[] bounds) {
+        double size = tileSize / scale(key.z());
+        double originX = key.x() * size;
+        double originY = key.y() * size;
+        return bounds[2] >= originX && bounds[0] < originX + size
+                && bounds[3] >= originY && bounds[1] < originY + size;
+    }
+
+    // minX, minY, maxX, maxY in canvas pixels, padded by half the stroke width plus antialiasing
+    private static double[] bounds(DrawingStroke stroke) {
+        List<Point> points = stroke.getPoints();
+        if (points == null || points.isEmpty()) {
+            return null;
+        }
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (Point point : points) {
+            minX = Math.min(minX, point.x());
+            minY = Math.min(minY, point.y());
+            maxX = Math.max(maxX, point.x());
+            maxY = Math.max(maxY, point.y());
+        }
+        double padding = stroke.getWidth() / 2 + 1;
+        return new double[]{minX - padding, minY - padding, maxX + padding, maxY + padding};
+    }
+
+    private static double[] union(double[] a, double[] b) {
+        return new double[]{
+                Math.min(a[0], b[0]), Math.min(a[1], b[1]),
+                Math.max(a[2], b[2]), Math.max(a[3], b[3])
+        };
+    }
+
+    private double scale(int z) {
+        return Math.pow(2, z - maxZoom);
+    }
+
+    private AtomicLong version(String canvasId) {
+        return canvasVersions.computeIfAbsent(canvasId, key -> new AtomicLong());
+    }
+
+    private Object renderLock(String canvasId) {
+        return renderLocks[Math.floorMod(canvasId.hashCode(), renderLocks.length)];
+    }
+
+    private static Color parseColor(String color) {
+        try {
+            return Color.decode(color);
+        } catch (NumberFormatException | NullPointerException e) {
+            return Color.BLACK;
+        }
+    }
+
+    public record TileKey(String canvasId, int z, int x, int y) {}
+
+    /**
+     * A cached tile is either clean (PNG bytes only) or dirty (raw image patched by new strokes,
+     * encoded again on the next request). Guarded by its own monitor; accountedBytes by the tiles monitor.
+     */
+    private final class Tile {
+        private final TileKey key;
+        private final double scale;
+        private final double originX;
+        private final double originY;
+        private BufferedImage image;
+        private byte[] png;
+        private long accountedBytes;
+
+        private Tile(TileKey key) {
+            this.key = key;
+            this.scale = scale(key.z());
+            this.originX = key.x() * (tileSize / scale);
+            this.originY = key.y() * (tileSize / scale);
+            this.image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        private boolean intersects(double[] bounds) {
+            double size = tileSize / scale;
+            return bounds != null
+                    && bounds[2] >= originX && bounds[0] < originX + size
+                    && bounds[3] >= originY && bounds[1] < originY + size;
+        }
+
+        private synchronized long bytes() {
+            return (png == null ? 0 : png.length) + (image == null ? 0 : (long) tileSize * tileSize * 4);
+        }
+
+        private synchronized void draw(DrawingStroke stroke) {
+            List<Point> points = stroke.getPoints();
+            if (points == null || points.isEmpty()) {
+                return;
+            }
+            if (image == null) {
+                image = decode(png);
+            }
+            Path2D.Double path = new Path2D.Double();
+            path.moveTo(points.getFirst().x(), points.getFirst().y());
+            for (Point point : points) {
+                path.lineTo(point.x(), point.y());
+            }
+
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+                g.scale(scale, scale);
+                g.translate(-originX, -originY);
+                g.setColor(parseColor(stroke.getColor()));
+                g.setStroke(new BasicStroke((float) stroke.getWidth(), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+                g.draw(path);
+            } finally {
+                g.dispose();
+            }
+            png = null;
+        }
+
+        // Encodes a dirty tile and drops its raw image so only the PNG stays cached
+        private synchronized byte[] encode() {
+            if (png == null) {
+                try {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    ImageIO.write(image, "png", out);
+                    png = out.toByteArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                image = null;
+            }
+            return png;
+        }
+
+        private BufferedImage decode(byte[] bytes) {
+            try {
+                BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+                // ImageIO may pick a palette or RGB type for sparse tiles; draw onto ARGB
+                BufferedImage argb = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = argb.createGraphics();
+                try {
+                    g.drawImage(decoded, 0, 0, null);
+                } finally {
+                    g.dispose();
+                }
+                return argb;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.marc_hg.kollabspace.features.drawing;
 
+import com.marc_hg.kollabspace.infrastructure.websocket.TopicSequencer;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,32 +20,31 @@ import java.util.List;
 @Slf4j
 public class DrawingController {
     private final DrawingService drawingService;
+    private final TopicSequencer topicSequencer;
 
-    public DrawingController(DrawingService drawingService) {
+    public DrawingController(DrawingService drawingService, TopicSequencer topicSequencer) {
         this.drawingService = drawingService;
+        this.topicSequencer = topicSequencer;
     }
 
     @MessageMapping("/canvas/{canvasId}/stroke")
-    @SendTo("/topic/canvas/{canvasId}")
-    public DrawingStrokeDTO addStroke(@DestinationVariable String canvasId, @Valid DrawingStrokeRequestDTO strokeRequest) {
+    public void addStroke(@DestinationVariable String canvasId, @Valid DrawingStrokeRequestDTO strokeRequest) {
         log.info("Received stroke request for canvas {}", canvasId);
-        return drawingService.addStroke(strokeRequest);
+        topicSequencer.publish("/topic/canvas/" + canvasId, drawingService.addStroke(strokeRequest));
     }
 
     @MessageMapping("/canvas/{canvasId}/delete")
-    @SendTo("/topic/canvas/{canvasId}")
-    public DeleteStrokeMessage deleteStroke(@DestinationVariable String canvasId, DeleteStrokeRequest request) {
+    public void deleteStroke(@DestinationVariable String canvasId, DeleteStrokeRequest request) {
         log.info("Deleting stroke {} from canvas {}", request.strokeId(), canvasId);
         drawingService.deleteStroke(request.strokeId(), canvasId);
-        return new DeleteStrokeMessage(request.strokeId());
+        topicSequencer.publish("/topic/canvas/" + canvasId, new DeleteStrokeMessage(request.strokeId()));
     }
 
     @MessageMapping("/canvas/{canvasId}/clear")
-    @SendTo("/topic/canvas/{canvasId}")
-    public ClearCanvasMessage clearCanvas(@DestinationVariable String canvasId) {
+    public void clearCanvas(@DestinationVariable String canvasId) {
         log.info("Clearing canvas {}", canvasId);
         drawingService.clearCanvas(canvasId);
-        return new ClearCanvasMessage(canvasId);
+        topicSequencer.publish("/topic/canvas/" + canvasId, new ClearCanvasMessage(canvasId));
     }
 
     @GetMapping("/api/canvas/{canvasId}/strokes")
@@ -49,6 +53,29 @@ public class DrawingController {
         return drawingService.getStrokes(canvasId);
     }
 
+    @GetMapping("/api/canvas/{canvasId}/tiles/{z}/{x}/{y}")
+    public ResponseEntity<byte[]> getTile(@PathVariable String canvasId, @PathVariable int z,
+                                          @PathVariable int x, @PathVariable int y, WebRequest request) {
+        log.info("Getting tile {}/{}/{} for canvas {}", z, x, y, canvasId);
+        if (!drawingService.isValidTileZoom(z)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Read before rendering: if the canvas changes meanwhile, the next request simply revalidates
+        String eTag = drawingService.getTileETag(canvasId);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        byte[] tile = drawingService.getTile(canvasId, z, x, y);
+        if (tile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .body(tile);
+    }
+
     // Helper records for delete and clear operations
     public record DeleteStrokeRequest(String strokeId) {}
     public record DeleteStrokeMessage(String strokeId) {}
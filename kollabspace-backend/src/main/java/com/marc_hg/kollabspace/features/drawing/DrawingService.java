@@ -1,19 +1,39 @@
 package com.marc_hg.kollabspace.features.drawing;
 
+import com.marc_hg.kollabspace.infrastructure.websocket.TopicSnapshotProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-public class DrawingService {
+public class DrawingService implements TopicSnapshotProvider {
     private final DrawingRepository drawingRepository;
+    private final StrokeSimplifier strokeSimplifier;
+    private final CanvasTileService canvasTileService;
 
-    public DrawingService(DrawingRepository drawingRepository) {
+    public DrawingService(DrawingRepository drawingRepository, StrokeSimplifier strokeSimplifier,
+                          CanvasTileService canvasTileService) {
         this.drawingRepository = drawingRepository;
+        this.strokeSimplifier = strokeSimplifier;
+        this.canvasTileService = canvasTileService;
+    }
+
+    public boolean isValidTileZoom(int z) {
+        return canvasTileService.isValidZoom(z);
+    }
+
+    public String getTileETag(String canvasId) {
+        return canvasTileService.getETag(canvasId);
+    }
+
+    public byte[] getTile(String canvasId, int z, int x, int y) {
+        log.info("Getting tile {}/{}/{} for canvas {}", z, x, y, canvasId);
+        return canvasTileService.getTile(canvasId, z, x, y);
     }
 
     public List<DrawingStrokeDTO> getStrokes(String canvasId) {
@@ -25,27 +45,49 @@ public class DrawingService {
 
     public DrawingStrokeDTO addStroke(DrawingStrokeRequestDTO request) {
         log.info("Adding stroke to canvas {}", request.getCanvasId());
+        List<Point> points = strokeSimplifier.simplify(request.getCanvasId(), request.getPoints(), request.getWidth());
+        int removedPoints = request.getPoints().size() - points.size();
+        if (removedPoints > 0) {
+            log.info("Simplified stroke on canvas {}: removed {} of {} points",
+                    request.getCanvasId(), removedPoints, request.getPoints().size());
+        }
+
         DrawingStroke entity = new DrawingStroke();
         entity.setId(UUID.randomUUID().toString());
         entity.setCanvasId(request.getCanvasId());
-        entity.setPoints(request.getPoints());
+        entity.setPoints(points);
         entity.setColor(request.getColor());
         entity.setWidth(request.getWidth());
         entity.setUserId(request.getUserId());
         entity.setTimestamp(System.currentTimeMillis());
 
         drawingRepository.save(entity);
+        canvasTileService.strokeAdded(entity);
         return toDTO(entity);
     }
 
     public void deleteStroke(String strokeId, String canvasId) {
         log.info("Deleting stroke {} from canvas {}", strokeId, canvasId);
+        Optional<DrawingStroke> stroke = drawingRepository.findById(strokeId);
         drawingRepository.deleteById(strokeId, canvasId);
+        stroke.filter(s -> s.getCanvasId().equals(canvasId))
+                .ifPresent(canvasTileService::strokeDeleted);
     }
 
     public void clearCanvas(String canvasId) {
         log.info("Clearing canvas {}", canvasId);
         drawingRepository.clearCanvas(canvasId);
+        canvasTileService.canvasCleared(canvasId);
+    }
+
+    @Override
+    public String topicPrefix() {
+        return "/topic/canvas/";
+    }
+
+    @Override
+    public Object snapshot(String canvasId) {
+        return getStrokes(canvasId);
     }
 
     private DrawingStrokeDTO toDTO(DrawingStroke entity) {
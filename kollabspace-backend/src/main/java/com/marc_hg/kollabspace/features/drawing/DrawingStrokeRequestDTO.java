@@ -1,5 +1,8 @@
 package com.marc_hg.kollabspace.features.drawing;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -17,12 +20,14 @@ public class DrawingStrokeRequestDTO {
     private String canvasId;
 
     @NotEmpty(message = "Points array cannot be empty")
-    private List<Point> points;
+    private List<@NotNull @Valid Point> points;
 
     @NotBlank(message = "Color cannot be empty")
     private String color;
 
     @NotNull(message = "Width cannot be null")
+    @DecimalMin(value = "0", inclusive = false, message = "Width must be positive")
+    @DecimalMax(value = "100", message = "Width too large (max 100)")
     private Double width;
 
     @NotBlank(message = "User ID cannot be empty")
@@ -1,3 +1,15 @@
 package com.marc_hg.kollabspace.features.drawing;
 
-public record Point(int x, int y){}
\ No newline at end of file
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+// Coordinates are bounded so a single stroke cannot span an absurd area of the canvas
+public record Point(
+        @Min(value = -Point.MAX_COORDINATE, message = "Coordinate out of range")
+        @Max(value = Point.MAX_COORDINATE, message = "Coordinate out of range")
+        int x,
+        @Min(value = -Point.MAX_COORDINATE, message = "Coordinate out of range")
+        @Max(value = Point.MAX_COORDINATE, message = "Coordinate out of range")
+        int y) {
+    public static final int MAX_COORDINATE = 100_000;
+}
@@ -0,0 +1,30 @@
+package com.marc_hg.kollabspace.features.drawing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stroke simplification settings. The tolerance (in canvas pixels) is the stroke width
+ * multiplied by the tolerance factor, capped at maxTolerance so wide brushes keep their curves.
+ */
+@Component
+@ConfigurationProperties(prefix = "drawing.simplification")
+@Data
+public class StrokeSimplificationProperties {
+    private boolean enabled = true;
+
+    private double toleranceFactor = 0.2;
+
+    private double maxTolerance = 1.5;
+
+    // Per-canvas override of the tolerance factor, 0 disables simplification for that canvas
+    private Map<String, Double> canvases = new HashMap<>();
+
+    public double toleranceFactorFor(String canvasId) {
+        return canvases.getOrDefault(canvasId, toleranceFactor);
+    }
+}
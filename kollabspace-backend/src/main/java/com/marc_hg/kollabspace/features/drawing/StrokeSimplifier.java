@@ -0,0 +1,89 @@
+package com.marc_hg.kollabspace.features.drawing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Ramer–Douglas–Peucker simplification of freehand strokes.
+ * Iterative so long strokes cannot overflow the stack; first and last points are always kept.
+ */
+@Component
+public class StrokeSimplifier {
+    private final StrokeSimplificationProperties properties;
+
+    public StrokeSimplifier(StrokeSimplificationProperties properties) {
+        this.properties = properties;
+    }
+
+    public List<Point> simplify(String canvasId, List<Point> points, double width) {
+        if (!properties.isEnabled() || points == null || points.size() < 3) {
+            return points;
+        }
+        double tolerance = Math.min(width * properties.toleranceFactorFor(canvasId), properties.getMaxTolerance());
+        if (tolerance <= 0) {
+            return points;
+        }
+        return simplify(points, tolerance);
+    }
+
+    static List<Point> simplify(List<Point> points, double tolerance) {
+        int size = points.size();
+        boolean[] keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+
+        double toleranceSquared = tolerance * tolerance;
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, size - 1});
+
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+
+            int farthest = -1;
+            double maxDistanceSquared = toleranceSquared;
+            for (int i = first + 1; i < last; i++) {
+                double distanceSquared = segmentDistanceSquared(points.get(i), points.get(first), points.get(last));
+                if (distanceSquared > maxDistanceSquared) {
+                    maxDistanceSquared = distanceSquared;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+
+        List<Point> simplified = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                simplified.add(points.get(i));
+            }
+        }
+        return simplified;
+    }
+
+    private static double segmentDistanceSquared(Point p, Point a, Point b) {
+        double dx = b.x() - a.x();
+        double dy = b.y() - a.y();
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            double px = p.x() - a.x();
+            double py = p.y() - a.y();
+            return px * px + py * py;
+        }
+        double t = ((p.x() - a.x()) * dx + (p.y() - a.y()) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double px = p.x() - (a.x() + t * dx);
+        double py = p.y() - (a.y() + t * dy);
+        return px * px + py * py;
+    }
+}
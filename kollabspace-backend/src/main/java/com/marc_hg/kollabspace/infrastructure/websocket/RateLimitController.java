@@ -0,0 +1,20 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class RateLimitController {
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public RateLimitController(RateLimitInterceptor rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @GetMapping("/api/websocket/rate-limit")
+    public List<RateLimitInterceptor.RuleStats> getStats() {
+        return rateLimitInterceptor.getStats();
+    }
+}
@@ -0,0 +1,207 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops inbound STOMP messages that exceed the per-session or per-room token bucket
+ * configured for their destination. Buckets live in concurrent maps and are updated
+ * with CAS only, so the limiter never blocks the inbound channel threads.
+ */
+@Component
+@Slf4j
+public class RateLimitInterceptor implements ChannelInterceptor {
+    // Full buckets are swept every SWEEP_INTERVAL inbound messages
+    private static final long SWEEP_INTERVAL = 4096;
+    private static final String RESYNC_RULE = "resync";
+
+    private final boolean enabled;
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final CompiledRule resyncRule;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // sessionId -> rule name -> bucket
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, TokenBucket>> sessionBuckets = new ConcurrentHashMap<>();
+    // rule name + room variables -> bucket
+    private final ConcurrentHashMap<String, TokenBucket> roomBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong messagesSinceSweep = new AtomicLong();
+
+    public RateLimitInterceptor(RateLimitProperties properties) {
+        this.enabled = properties.isEnabled();
+        properties.getRules().forEach((name, rule) -> {
+            rules.add(new CompiledRule(name, rule));
+            log.info("Rate limit rule {} on {} (session: {}, room: {})",
+                    name, rule.getDestination(), rule.getSession(), rule.getRoom());
+        });
+
+        if (properties.getResync() != null) {
+            RateLimitProperties.Rule resync = new RateLimitProperties.Rule();
+            resync.setDestination("/topic/**");
+            resync.setSession(properties.getResync());
+            this.resyncRule = new CompiledRule(RESYNC_RULE, resync);
+            log.info("Rate limit on resync subscriptions (session: {})", properties.getResync());
+        } else {
+            this.resyncRule = null;
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+
+        if (type == SimpMessageType.DISCONNECT) {
+            if (sessionId != null) {
+                sessionBuckets.remove(sessionId);
+            }
+            return message;
+        }
+        if (!enabled) {
+            return message;
+        }
+        if (type == SimpMessageType.SUBSCRIBE && resyncRule != null && sessionId != null) {
+            return limitResync(message, sessionId);
+        }
+        if (type != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return message;
+        }
+        CompiledRule rule = findRule(destination);
+        if (rule == null) {
+            return message;
+        }
+
+        long now = System.nanoTime();
+        if (messagesSinceSweep.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep(now);
+        }
+
+        TokenBucket sessionBucket = null;
+        if (rule.sessionRate != null && sessionId != null) {
+            sessionBucket = sessionBucket(rule, sessionId);
+            if (!sessionBucket.tryAcquire(now)) {
+                rule.sessionThrottled.increment();
+                log.debug("Session {} throttled on {}", sessionId, destination);
+                return null;
+            }
+        }
+
+        if (rule.roomRate != null) {
+            TokenBucket bucket = roomBuckets.computeIfAbsent(roomKey(rule, destination),
+                    key -> new TokenBucket(rule.roomRate));
+            if (!bucket.tryAcquire(now)) {
+                // The message is dropped, so it should not count against the sender's own budget
+                if (sessionBucket != null) {
+                    sessionBucket.release();
+                }
+                rule.roomThrottled.increment();
+                log.debug("Room throttled on {} (session {})", destination, sessionId);
+                return null;
+            }
+        }
+
+        rule.allowed.increment();
+        return message;
+    }
+
+    /**
+     * Snapshots are expensive to build, so a session over its resync budget still gets
+     * subscribed, just without the replay: the last-seq header is stripped.
+     */
+    private Message<?> limitResync(Message<?> message, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (accessor.getFirstNativeHeader(TopicReplayInterceptor.LAST_SEQ_HEADER) == null) {
+            return message;
+        }
+        if (sessionBucket(resyncRule, sessionId).tryAcquire(System.nanoTime())) {
+            resyncRule.allowed.increment();
+            return message;
+        }
+        resyncRule.sessionThrottled.increment();
+        log.debug("Session {} throttled on resync of {}", sessionId, accessor.getDestination());
+        accessor.removeNativeHeader(TopicReplayInterceptor.LAST_SEQ_HEADER);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    private TokenBucket sessionBucket(CompiledRule rule, String sessionId) {
+        return sessionBuckets
+                .computeIfAbsent(sessionId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(rule.name, key -> new TokenBucket(rule.sessionRate));
+    }
+
+    public List<RuleStats> getStats() {
+        List<CompiledRule> all = new ArrayList<>(rules);
+        if (resyncRule != null) {
+            all.add(resyncRule);
+        }
+        return all.stream()
+                .map(rule -> new RuleStats(
+                        rule.name,
+                        rule.destination,
+                        rule.allowed.sum(),
+                        rule.sessionThrottled.sum(),
+                        rule.roomThrottled.sum()))
+                .toList();
+    }
+
+    private CompiledRule findRule(String destination) {
+        for (CompiledRule rule : rules) {
+            if (pathMatcher.match(rule.destination, destination)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private String roomKey(CompiledRule rule, String destination) {
+        Map<String, String> variables = pathMatcher.extractUriTemplateVariables(rule.destination, destination);
+        // Without template variables the whole destination is treated as a single room
+        return variables.isEmpty()
+                ? rule.name + ":" + destination
+                : rule.name + ":" + String.join("/", variables.values());
+    }
+
+    private void sweep(long now) {
+        roomBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        sessionBuckets.values().forEach(buckets -> buckets.values().removeIf(bucket -> bucket.isFull(now)));
+        sessionBuckets.values().removeIf(Map::isEmpty);
+    }
+
+    private static final class CompiledRule {
+        private final String name;
+        private final String destination;
+        private final TokenBucket.Rate sessionRate;
+        private final TokenBucket.Rate roomRate;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder sessionThrottled = new LongAdder();
+        private final LongAdder roomThrottled = new LongAdder();
+
+        private CompiledRule(String name, RateLimitProperties.Rule rule) {
+            this.name = name;
+            this.destination = rule.getDestination();
+            this.sessionRate = rule.getSession() == null ? null : TokenBucket.Rate.of(rule.getSession());
+            this.roomRate = rule.getRoom() == null ? null : TokenBucket.Rate.of(rule.getRoom());
+        }
+    }
+
+    public record RuleStats(String rule, String destination, long allowed, long sessionThrottled, long roomThrottled) {}
+}
@@ -0,0 +1,54 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token bucket limits for inbound STOMP messages, keyed by rule name.
+ * Each rule matches an application destination pattern (e.g. /app/chat/{roomId}/send)
+ * and may define a per-session and a per-room limit. A missing limit means unlimited.
+ * Invalid limits fail the application at startup.
+ */
+@Component
+@ConfigurationProperties(prefix = "websocket.rate-limit")
+@Validated
+@Data
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    private Map<String, @Valid Rule> rules = new LinkedHashMap<>();
+
+    // Per-session limit on SUBSCRIBE frames asking for a replay or snapshot (last-seq header)
+    @Valid
+    private Limit resync;
+
+    @Data
+    public static class Rule {
+        // Ant-style pattern; the values of its {variables} identify the room
+        @NotBlank
+        private String destination;
+        @Valid
+        private Limit session;
+        @Valid
+        private Limit room;
+    }
+
+    @Data
+    public static class Limit {
+        // Maximum burst size
+        @Positive
+        private int capacity;
+        // Sustained rate once the burst is spent, at least one token every 1000 seconds
+        @DecimalMin("0.001")
+        private double refillPerSecond;
+    }
+}
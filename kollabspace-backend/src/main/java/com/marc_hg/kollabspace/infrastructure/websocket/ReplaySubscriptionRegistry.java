@@ -0,0 +1,52 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+
+/**
+ * Wraps the simple broker's registry so that frames carrying the replay target headers
+ * reach only that one subscription, while still going through the broker's ordered
+ * per-session delivery like every live broadcast.
+ */
+class ReplaySubscriptionRegistry implements SubscriptionRegistry {
+    private final SubscriptionRegistry delegate;
+
+    ReplaySubscriptionRegistry(SubscriptionRegistry delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void registerSubscription(Message<?> subscribeMessage) {
+        delegate.registerSubscription(subscribeMessage);
+    }
+
+    @Override
+    public void unregisterSubscription(Message<?> unsubscribeMessage) {
+        delegate.unregisterSubscription(unsubscribeMessage);
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        delegate.unregisterAllSubscriptions(sessionId);
+    }
+
+    @Override
+    public MultiValueMap<String, String> findSubscriptions(Message<?> message) {
+        MultiValueMap<String, String> subscriptions = delegate.findSubscriptions(message);
+        String sessionId = message.getHeaders().get(TopicSequencer.REPLAY_SESSION_HEADER, String.class);
+        if (sessionId == null) {
+            return subscriptions;
+        }
+        String subscriptionId = message.getHeaders().get(TopicSequencer.REPLAY_SUBSCRIPTION_HEADER, String.class);
+        MultiValueMap<String, String> target = new LinkedMultiValueMap<>();
+        List<String> subscriptionIds = subscriptions.get(sessionId);
+        if (subscriptionIds != null && subscriptionIds.contains(subscriptionId)) {
+            target.add(sessionId, subscriptionId);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,19 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.stereotype.Component;
+
+// Installs ReplaySubscriptionRegistry on the simple broker created by WebSocketConfig
+@Component
+public class ReplaySubscriptionRegistryPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof SimpleBrokerMessageHandler broker
+                && !(broker.getSubscriptionRegistry() instanceof ReplaySubscriptionRegistry)) {
+            broker.setSubscriptionRegistry(new ReplaySubscriptionRegistry(broker.getSubscriptionRegistry()));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,59 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm:
+ * the whole bucket state is a single "theoretical arrival time" updated with CAS.
+ */
+final class TokenBucket {
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    // Point in time at which the bucket is full again
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(Rate rate) {
+        this.emissionIntervalNanos = rate.emissionIntervalNanos();
+        this.burstNanos = rate.burstNanos();
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Gives back a token taken by tryAcquire, e.g. when a later check rejected the message
+    void release() {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos);
+    }
+
+    // A full bucket behaves exactly like a fresh one, so it can be dropped
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+
+    /**
+     * A limit converted to nanoseconds. Built once per rule when the interceptor is created,
+     * so a limit that does not fit fails the application at startup instead of the first message.
+     */
+    record Rate(long emissionIntervalNanos, long burstNanos) {
+        static Rate of(RateLimitProperties.Limit limit) {
+            double interval = Math.max(1, 1_000_000_000.0 / limit.getRefillPerSecond());
+            // Leaves headroom for adding the burst to a nanoTime() reading
+            if (!(interval * limit.getCapacity() < Long.MAX_VALUE / 4)) {
+                throw new IllegalArgumentException("Rate limit " + limit + " is out of range");
+            }
+            long emissionIntervalNanos = (long) interval;
+            return new Rate(emissionIntervalNanos, emissionIntervalNanos * limit.getCapacity());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Handles SUBSCRIBE frames carrying "last-seq" (and the "seq-epoch" the client last saw):
+ * the missed events are sent to the new subscription, or a single frame marked "snapshot"
+ * with the full topic state when they are no longer buffered.
+ * The topic is locked from just before the broker registers the subscription until the
+ * replay has been sent, so no event can be missed or overtake the replayed ones.
+ */
+@Component
+@Slf4j
+public class TopicReplayInterceptor implements ExecutorChannelInterceptor {
+    public static final String LAST_SEQ_HEADER = "last-seq";
+
+    private final TopicSequencer topicSequencer;
+    private final List<TopicSnapshotProvider> snapshotProviders;
+
+    // beforeHandle and afterMessageHandled of one SUBSCRIBE run on the same thread
+    private final ThreadLocal<PendingReplay> pendingReplay = new ThreadLocal<>();
+
+    // Lazy: the sequencer needs the broker template, which is built from WebSocketConfig
+    public TopicReplayInterceptor(@Lazy TopicSequencer topicSequencer, List<TopicSnapshotProvider> snapshotProviders) {
+        this.topicSequencer = topicSequencer;
+        this.snapshotProviders = snapshotProviders;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (!(handler instanceof SimpleBrokerMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        String lastSeqHeader = accessor.getFirstNativeHeader(LAST_SEQ_HEADER);
+        if (destination == null || lastSeqHeader == null) {
+            return message;
+        }
+
+        long lastSeq;
+        try {
+            lastSeq = Long.parseLong(lastSeqHeader);
+        } catch (NumberFormatException e) {
+            lastSeq = -1;
+        }
+        if (lastSeq < 0) {
+            log.warn("Ignoring invalid {} header '{}' for {}", LAST_SEQ_HEADER, lastSeqHeader, destination);
+            return message;
+        }
+
+        pendingReplay.set(new PendingReplay(
+                topicSequencer.beginReplay(destination),
+                destination,
+                accessor.getSessionId(),
+                accessor.getSubscriptionId(),
+                accessor.getFirstNativeHeader(TopicSequencer.EPOCH_HEADER),
+                lastSeq));
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (!(handler instanceof SimpleBrokerMessageHandler)) {
+            return;
+        }
+        PendingReplay pending = pendingReplay.get();
+        if (pending == null) {
+            return;
+        }
+        pendingReplay.remove();
+        try {
+            if (ex == null) {
+                replay(pending);
+            }
+        } finally {
+            pending.replay().release();
+        }
+    }
+
+    private void replay(PendingReplay pending) {
+        TopicSequencer.Replay replay = pending.replay();
+        List<TopicSequencer.SequencedEvent> events = replay.eventsSince(pending.epoch(), pending.lastSeq());
+        if (events != null) {
+            log.info("Replaying {} events on {} to session {} (after seq {})",
+                    events.size(), pending.destination(), pending.sessionId(), pending.lastSeq());
+            events.forEach(e -> replay.send(pending.sessionId(), pending.subscriptionId(), e.seq(), e.payload(), false));
+            return;
+        }
+
+        for (TopicSnapshotProvider provider : snapshotProviders) {
+            if (pending.destination().startsWith(provider.topicPrefix())) {
+                // Publishing is blocked, so the snapshot covers every event up to currentSeq.
+                // It may also contain changes saved but not yet broadcast; those follow with a higher seq,
+                // which is why clients apply events by id (see DRAWING_API_CONTRACT.md).
+                Object snapshot = provider.snapshot(pending.destination().substring(provider.topicPrefix().length()));
+                log.info("Sending snapshot of {} at seq {} to session {} (client was at seq {})",
+                        pending.destination(), replay.currentSeq(), pending.sessionId(), pending.lastSeq());
+                replay.send(pending.sessionId(), pending.subscriptionId(), replay.currentSeq(), snapshot, true);
+                return;
+            }
+        }
+        log.warn("No snapshot provider for {}, cannot resync session {}", pending.destination(), pending.sessionId());
+    }
+
+    private record PendingReplay(TopicSequencer.Replay replay, String destination, String sessionId,
+                                 String subscriptionId, String epoch, long lastSeq) {}
+}
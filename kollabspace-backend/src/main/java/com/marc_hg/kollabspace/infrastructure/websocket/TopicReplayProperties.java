@@ -0,0 +1,31 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Replay buffer limits. At most maxTopics * bufferSize events are kept in memory;
+ * a topic without broadcasts for idleTimeout is dropped along with its buffer.
+ */
+@Component
+@ConfigurationProperties(prefix = "websocket.replay")
+@Validated
+@Data
+public class TopicReplayProperties {
+    // Events kept per /topic destination
+    @Positive
+    private int bufferSize = 128;
+
+    // Least recently published topics are dropped beyond this
+    @Positive
+    private int maxTopics = 500;
+
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(10);
+}
@@ -0,0 +1,232 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Broadcasts to /topic destinations with a per-topic monotonic "seq" header and keeps
+ * the last events of every topic in a bounded ring buffer so reconnecting clients can
+ * be sent only what they missed.
+ * The "seq-epoch" header identifies one run of a topic's sequence: it changes when the
+ * server restarts or the topic is evicted, since sequences then start over from 1.
+ */
+@Component
+@Slf4j
+public class TopicSequencer {
+    public static final String SEQ_HEADER = "seq";
+    public static final String EPOCH_HEADER = "seq-epoch";
+    public static final String SNAPSHOT_HEADER = "snapshot";
+
+    // Internal (non-STOMP) headers restricting a frame to one subscription, see ReplaySubscriptionRegistry
+    static final String REPLAY_SESSION_HEADER = "replaySessionId";
+    static final String REPLAY_SUBSCRIPTION_HEADER = "replaySubscriptionId";
+
+    // Idle topics are swept every SWEEP_INTERVAL broadcasts
+    private static final long SWEEP_INTERVAL = 1024;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int bufferSize;
+    private final int maxTopics;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicLong publishesSinceSweep = new AtomicLong();
+
+    public TopicSequencer(SimpMessagingTemplate messagingTemplate, TopicReplayProperties properties) {
+        this.messagingTemplate = messagingTemplate;
+        this.bufferSize = properties.getBufferSize();
+        this.maxTopics = properties.getMaxTopics();
+        this.idleTimeoutNanos = properties.getIdleTimeout().toNanos();
+    }
+
+    public void publish(String destination, Object payload) {
+        long now = System.nanoTime();
+        Topic topic = topic(destination, now);
+        // Held while sending so subscribers see events in sequence order, and so a replay
+        // in progress (see beginReplay) finishes before any later event goes out
+        topic.lock.lock();
+        try {
+            long seq = topic.append(payload, now);
+            send(destination, payload, seq, topic.epoch, false, null, null);
+        } finally {
+            topic.lock.unlock();
+        }
+
+        if (publishesSinceSweep.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep(now);
+        }
+    }
+
+    /**
+     * Broadcasts the current state of a topic without consuming a sequence number or
+     * buffer slot, e.g. in answer to a read. Carries the seq it is current as of.
+     */
+    public void publishSnapshot(String destination, Object payload) {
+        Topic topic = topics.get(destination);
+        if (topic == null) {
+            send(destination, payload, 0, null, true, null, null);
+            return;
+        }
+        topic.lock.lock();
+        try {
+            send(destination, payload, topic.seq, topic.epoch, true, null, null);
+        } finally {
+            topic.lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks broadcasts to the destination until the returned replay is released.
+     * Callers must release it in a finally block.
+     */
+    public Replay beginReplay(String destination) {
+        Topic topic = topics.get(destination);
+        if (topic != null) {
+            topic.lock.lock();
+        }
+        return new Replay(destination, topic);
+    }
+
+    int topicCount() {
+        return topics.size();
+    }
+
+    private Topic topic(String destination, long now) {
+        Topic existing = topics.get(destination);
+        if (existing != null) {
+            return existing;
+        }
+        Topic created = new Topic(bufferSize, now);
+        Topic topic = topics.putIfAbsent(destination, created);
+        if (topic != null) {
+            return topic;
+        }
+        if (topics.size() > maxTopics) {
+            evictLeastRecentlyPublished(destination);
+        }
+        return created;
+    }
+
+    private void evictLeastRecentlyPublished(String keep) {
+        String eldest = null;
+        long eldestPublished = 0;
+        for (Map.Entry<String, Topic> entry : topics.entrySet()) {
+            long published = entry.getValue().lastPublished;
+            if (!entry.getKey().equals(keep) && (eldest == null || published - eldestPublished < 0)) {
+                eldest = entry.getKey();
+                eldestPublished = published;
+            }
+        }
+        if (eldest != null && topics.remove(eldest) != null) {
+            log.info("Evicted replay buffer of {} (limit: {} topics)", eldest, maxTopics);
+        }
+    }
+
+    private void sweep(long now) {
+        topics.entrySet().removeIf(entry -> now - entry.getValue().lastPublished > idleTimeoutNanos);
+    }
+
+    private void send(String destination, Object payload, long seq, String epoch, boolean snapshot,
+                      String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setNativeHeader(SEQ_HEADER, Long.toString(seq));
+        if (epoch != null) {
+            headers.setNativeHeader(EPOCH_HEADER, epoch);
+        }
+        if (snapshot) {
+            headers.setNativeHeader(SNAPSHOT_HEADER, "true");
+        }
+        if (sessionId != null) {
+            headers.setHeader(REPLAY_SESSION_HEADER, sessionId);
+            headers.setHeader(REPLAY_SUBSCRIPTION_HEADER, subscriptionId);
+        }
+        headers.setLeaveMutable(true);
+        // Through the broker, so frames share the per-session ordered channel with live broadcasts
+        messagingTemplate.convertAndSend(destination, payload, headers.getMessageHeaders());
+    }
+
+    public record SequencedEvent(long seq, Object payload) {}
+
+    /**
+     * A topic held locked for one resubscribing client. Frames sent through it go to that
+     * client's subscription only.
+     */
+    public final class Replay {
+        private final String destination;
+        private final Topic topic;
+
+        private Replay(String destination, Topic topic) {
+            this.destination = destination;
+            this.topic = topic;
+        }
+
+        /**
+         * Events published after lastSeq in the given epoch, oldest first, or null if the
+         * client has to start over from a snapshot (unknown topic, other epoch, events evicted).
+         */
+        public List<SequencedEvent> eventsSince(String epoch, long lastSeq) {
+            if (topic == null || !topic.epoch.equals(epoch)) {
+                return null;
+            }
+            return topic.since(lastSeq);
+        }
+
+        public long currentSeq() {
+            return topic == null ? 0 : topic.seq;
+        }
+
+        public void send(String sessionId, String subscriptionId, long seq, Object payload, boolean snapshot) {
+            TopicSequencer.this.send(destination, payload, seq, topic == null ? null : topic.epoch,
+                    snapshot, sessionId, subscriptionId);
+        }
+
+        public void release() {
+            if (topic != null) {
+                topic.lock.unlock();
+            }
+        }
+    }
+
+    // Mutable state guarded by lock
+    private static final class Topic {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final String epoch = UUID.randomUUID().toString();
+        private final Object[] payloads;
+        private long seq;
+        private volatile long lastPublished;
+
+        private Topic(int capacity, long now) {
+            this.payloads = new Object[capacity];
+            this.lastPublished = now;
+        }
+
+        private long append(Object payload, long now) {
+            seq++;
+            payloads[(int) (seq % payloads.length)] = payload;
+            lastPublished = now;
+            return seq;
+        }
+
+        private List<SequencedEvent> since(long lastSeq) {
+            long oldest = Math.max(1, seq - payloads.length + 1);
+            if (lastSeq < 0 || lastSeq > seq || lastSeq + 1 < oldest) {
+                return null;
+            }
+            List<SequencedEvent> events = new ArrayList<>();
+            for (long s = lastSeq + 1; s <= seq; s++) {
+                events.add(new SequencedEvent(s, payloads[(int) (s % payloads.length)]));
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+/**
+ * Supplies the full current state of a topic, sent to a resubscribing client
+ * when the events it missed are no longer in the replay buffer.
+ * The state may already include events that are broadcast after it, so every item
+ * in a snapshot must carry the id its later event will repeat.
+ */
+public interface TopicSnapshotProvider {
+    // e.g. "/topic/chat/"; the rest of the destination is passed to snapshot()
+    String topicPrefix();
+
+    Object snapshot(String topicId);
+}
@@ -2,6 +2,7 @@ package com.marc_hg.kollabspace.infrastructure.websocket;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
@@ -11,6 +12,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${websocket.allowed-origins}")
     private String allowedOrigins;
 
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final TopicReplayInterceptor topicReplayInterceptor;
+
+    public WebSocketConfig(RateLimitInterceptor rateLimitInterceptor, TopicReplayInterceptor topicReplayInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.topicReplayInterceptor = topicReplayInterceptor;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns(allowedOrigins).withSockJS();
@@ -20,6 +29,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.enableSimpleBroker("/topic");
         registry.setApplicationDestinationPrefixes("/app");
+        // Keep per-session delivery in publish order so "seq" headers arrive ascending
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Rate limiting first, so throttled frames never reach the broker or the replay
+        registration.interceptors(rateLimitInterceptor, topicReplayInterceptor);
     }
 
 }
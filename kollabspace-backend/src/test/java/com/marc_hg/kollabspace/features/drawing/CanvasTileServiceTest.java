@@ -0,0 +1,175 @@
+package com.marc_hg.kollabspace.features.drawing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class CanvasTileServiceTest {
+    private final CountingRepository repository = new CountingRepository();
+
+    private CanvasTileService service(long cacheMaxBytes) {
+        CanvasTileProperties properties = new CanvasTileProperties();
+        properties.setCacheMaxBytes(cacheMaxBytes);
+        return new CanvasTileService(repository, properties);
+    }
+
+    private DrawingStroke stroke(String id, Point... points) {
+        return stroke(id, 4.0, points);
+    }
+
+    private DrawingStroke stroke(String id, double width, Point... points) {
+        DrawingStroke stroke = new DrawingStroke(id, "canvas", List.of(points), "#FF0000", width, "user", 0);
+        repository.save(stroke);
+        return stroke;
+    }
+
+    @Test
+    void emptyCanvasHasNoTiles() {
+        CanvasTileService service = service(1024 * 1024);
+
+        assertNull(service.getTile("canvas", 4, 0, 0));
+    }
+
+    @Test
+    void tilesOutsideStrokeExtentAreRejectedWithoutLoadingStrokes() {
+        CanvasTileService service = service(1024 * 1024);
+        stroke("a", new Point(10, 10), new Point(600, 300));
+
+        assertNotNull(service.getTile("canvas", 4, 0, 0));
+        int loads = repository.loads;
+
+        assertNull(service.getTile("canvas", 4, 100, 100));
+        assertNull(service.getTile("canvas", 4, -1, 0));
+        assertEquals(loads, repository.loads);
+    }
+
+    @Test
+    void missRendersWholeBlockFromOneLoad() {
+        CanvasTileService service = service(1024 * 1024);
+        stroke("a", new Point(10, 10), new Point(1000, 1000));
+
+        // The stroke spans tiles 0..3 in both directions, i.e. one 4x4 block at z=4
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                assertNotNull(service.getTile("canvas", 4, x, y));
+            }
+        }
+        assertEquals(1, repository.loads);
+    }
+
+    @Test
+    void addedStrokePatchesCachedTileAndChangesETag() {
+        CanvasTileService service = service(1024 * 1024);
+        stroke("a", new Point(10, 10), new Point(100, 10));
+        byte[] before = service.getTile("canvas", 4, 0, 0);
+        String eTagBefore = service.getETag("canvas");
+
+        service.strokeAdded(stroke("b", new Point(10, 100), new Point(100, 100)));
+        byte[] after = service.getTile("canvas", 4, 0, 0);
+
+        assertFalse(Arrays.equals(before, after));
+        assertNotEquals(eTagBefore, service.getETag("canvas"));
+        assertEquals(1, repository.loads);
+    }
+
+    @Test
+    void hugeStrokesOnlyVisitCachedTiles() {
+        CanvasTileService service = service(1024 * 1024);
+        stroke("a", new Point(10, 10), new Point(100, 10));
+        assertNotNull(service.getTile("canvas", 4, 0, 0));
+
+        // Stored before validation existed; walking every tile position in these bounds would never finish
+        DrawingStroke wide = stroke("b", new Point(-2_000_000_000, -2_000_000_000), new Point(2_000_000_000, 2_000_000_000));
+        DrawingStroke endless = stroke("c", 1e300, new Point(0, 0), new Point(1, 1));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            service.strokeAdded(wide);
+            service.strokeDeleted(endless);
+        });
+    }
+
+    @Test
+    void renderRacingWithNewStrokeDoesNotHideIt() {
+        CanvasTileService service = service(1024 * 1024);
+        stroke("a", new Point(10, 10), new Point(100, 10));
+        // The new stroke lands after the render loaded its strokes but before it commits
+        repository.afterLoad = () -> {
+            repository.afterLoad = null;
+            service.strokeAdded(stroke("b", new Point(2000, 2000), new Point(2100, 2000)));
+        };
+
+        assertNotNull(service.getTile("canvas", 4, 0, 0));
+
+        assertNotNull(service.getTile("canvas", 4, 7, 7));
+    }
+
+    @Test
+    void cacheStaysWithinByteBound() {
+        // Room for roughly one encoded tile, so every block render evicts the previous one
+        CanvasTileService service = service(1);
+        stroke("a", new Point(10, 10), new Point(100, 10));
+
+        assertNotNull(service.getTile("canvas", 4, 0, 0));
+        assertNotNull(service.getTile("canvas", 4, 0, 0));
+        assertEquals(2, repository.loads);
+    }
+
+    @Test
+    void clearDropsTiles() {
+        CanvasTileService service = service(1024 * 1024);
+        stroke("a", new Point(10, 10), new Point(100, 10));
+        assertNotNull(service.getTile("canvas", 4, 0, 0));
+
+        repository.clearCanvas("canvas");
+        service.canvasCleared("canvas");
+
+        assertNull(service.getTile("canvas", 4, 0, 0));
+    }
+
+    private static class CountingRepository implements DrawingRepository {
+        private final List<DrawingStroke> strokes = new ArrayList<>();
+        private int loads;
+        private Runnable afterLoad;
+
+        @Override
+        public DrawingStroke save(DrawingStroke stroke) {
+            strokes.add(stroke);
+            return stroke;
+        }
+
+        @Override
+        public List<DrawingStroke> findByCanvasId(String canvasId) {
+            loads++;
+            List<DrawingStroke> result = strokes.stream().filter(s -> s.getCanvasId().equals(canvasId)).toList();
+            if (afterLoad != null) {
+                afterLoad.run();
+            }
+            return result;
+        }
+
+        @Override
+        public Optional<DrawingStroke> findById(String id) {
+            return strokes.stream().filter(s -> s.getId().equals(id)).findFirst();
+        }
+
+        @Override
+        public void deleteById(String id, String canvasId) {
+            strokes.removeIf(s -> s.getId().equals(id));
+        }
+
+        @Override
+        public void clearCanvas(String canvasId) {
+            strokes.removeIf(s -> s.getCanvasId().equals(canvasId));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.marc_hg.kollabspace.features.drawing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrokeSimplifierTest {
+
+    @Test
+    void collinearPointsCollapseToEndpoints() {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            points.add(new Point(i, 2 * i));
+        }
+
+        assertEquals(List.of(new Point(0, 0), new Point(100, 200)), StrokeSimplifier.simplify(points, 0.5));
+    }
+
+    @Test
+    void spikeAboveToleranceIsKept() {
+        List<Point> points = List.of(new Point(0, 0), new Point(5, 0), new Point(10, 3), new Point(15, 0), new Point(20, 0));
+
+        assertEquals(List.of(new Point(0, 0), new Point(10, 3), new Point(20, 0)), StrokeSimplifier.simplify(points, 1.5));
+    }
+
+    @Test
+    void jitterBelowToleranceIsRemoved() {
+        List<Point> points = List.of(new Point(0, 0), new Point(5, 1), new Point(10, 0), new Point(15, -1), new Point(20, 0));
+
+        assertEquals(List.of(new Point(0, 0), new Point(20, 0)), StrokeSimplifier.simplify(points, 1.5));
+    }
+
+    @Test
+    void closedStrokeKeepsFarthestPoint() {
+        // First and last points coincide, so the reference segment has zero length
+        List<Point> points = List.of(new Point(0, 0), new Point(10, 0), new Point(10, 10), new Point(0, 10), new Point(0, 0));
+
+        List<Point> simplified = StrokeSimplifier.simplify(points, 1.0);
+
+        assertEquals(new Point(0, 0), simplified.getFirst());
+        assertEquals(new Point(0, 0), simplified.getLast());
+        assertTrue(simplified.contains(new Point(10, 10)));
+    }
+
+    @Test
+    void duplicatedEndpointsAreDropped() {
+        List<Point> points = List.of(new Point(0, 0), new Point(0, 0), new Point(10, 0), new Point(10, 0));
+
+        assertEquals(List.of(new Point(0, 0), new Point(10, 0)), StrokeSimplifier.simplify(points, 0.5));
+    }
+
+    @Test
+    void toleranceIsCappedForWideStrokes() {
+        StrokeSimplificationProperties properties = new StrokeSimplificationProperties();
+        StrokeSimplifier simplifier = new StrokeSimplifier(properties);
+        // 3px bump, inside 0.2 * 40px = 8px but above the 1.5px cap
+        List<Point> points = List.of(new Point(0, 0), new Point(10, 3), new Point(20, 0));
+
+        assertEquals(points, simplifier.simplify("canvas", points, 40.0));
+    }
+
+    @Test
+    void shortStrokesAreReturnedUnchanged() {
+        StrokeSimplifier simplifier = new StrokeSimplifier(new StrokeSimplificationProperties());
+        List<Point> points = List.of(new Point(0, 0), new Point(3, 4));
+
+        assertSame(points, simplifier.simplify("canvas", points, 10.0));
+    }
+}
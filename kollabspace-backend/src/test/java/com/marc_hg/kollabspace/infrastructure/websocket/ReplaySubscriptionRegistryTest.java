@@ -0,0 +1,69 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplaySubscriptionRegistryTest {
+    private final MultiValueMap<String, String> subscribers = new LinkedMultiValueMap<>(Map.of(
+            "session-1", List.of("sub-0", "sub-1"),
+            "session-2", List.of("sub-0")));
+
+    private final ReplaySubscriptionRegistry registry = new ReplaySubscriptionRegistry(new SubscriptionRegistry() {
+        @Override
+        public void registerSubscription(Message<?> subscribeMessage) {
+        }
+
+        @Override
+        public void unregisterSubscription(Message<?> unsubscribeMessage) {
+        }
+
+        @Override
+        public void unregisterAllSubscriptions(String sessionId) {
+        }
+
+        @Override
+        public MultiValueMap<String, String> findSubscriptions(Message<?> message) {
+            return subscribers;
+        }
+    });
+
+    private Message<String> message(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination("/topic/chat/room");
+        if (sessionId != null) {
+            headers.setHeader(TopicSequencer.REPLAY_SESSION_HEADER, sessionId);
+            headers.setHeader(TopicSequencer.REPLAY_SUBSCRIPTION_HEADER, subscriptionId);
+        }
+        return MessageBuilder.createMessage("payload", headers.getMessageHeaders());
+    }
+
+    @Test
+    void liveBroadcastReachesEveryone() {
+        assertEquals(subscribers, registry.findSubscriptions(message(null, null)));
+    }
+
+    @Test
+    void replayReachesOnlyTargetSubscription() {
+        MultiValueMap<String, String> target = registry.findSubscriptions(message("session-1", "sub-1"));
+
+        assertEquals(Map.of("session-1", List.of("sub-1")), target);
+    }
+
+    @Test
+    void replayToUnknownSubscriptionReachesNobody() {
+        assertTrue(registry.findSubscriptions(message("session-2", "sub-9")).isEmpty());
+        assertTrue(registry.findSubscriptions(message("session-3", "sub-0")).isEmpty());
+    }
+}
@@ -0,0 +1,96 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    // Arbitrary, negative like System.nanoTime() is allowed to be
+    private static final long START = -5 * SECOND;
+
+    private static RateLimitProperties.Limit limit(int capacity, double refillPerSecond) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPerSecond(refillPerSecond);
+        return limit;
+    }
+
+    private static TokenBucket bucket(int capacity, double refillPerSecond) {
+        return new TokenBucket(TokenBucket.Rate.of(limit(capacity, refillPerSecond)));
+    }
+
+    @Test
+    void allowsBurstUpToCapacityThenThrottles() {
+        TokenBucket bucket = bucket(3, 1);
+
+        assertTrue(bucket.tryAcquire(START));
+        assertTrue(bucket.tryAcquire(START));
+        assertTrue(bucket.tryAcquire(START));
+        assertFalse(bucket.tryAcquire(START));
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        TokenBucket bucket = bucket(2, 10);
+        assertTrue(bucket.tryAcquire(START));
+        assertTrue(bucket.tryAcquire(START));
+        assertFalse(bucket.tryAcquire(START));
+
+        // One token every 100 ms
+        assertFalse(bucket.tryAcquire(START + SECOND / 10 - 1));
+        assertTrue(bucket.tryAcquire(START + SECOND / 10));
+        assertFalse(bucket.tryAcquire(START + SECOND / 10));
+    }
+
+    @Test
+    void neverExceedsCapacityAfterLongIdle() {
+        TokenBucket bucket = bucket(2, 10);
+        long later = START + 60 * SECOND;
+
+        assertTrue(bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void releaseGivesTokenBack() {
+        TokenBucket bucket = bucket(1, 1);
+        assertTrue(bucket.tryAcquire(START));
+        assertFalse(bucket.tryAcquire(START));
+
+        bucket.release();
+
+        assertTrue(bucket.tryAcquire(START));
+    }
+
+    @Test
+    void isFullOnlyOnceAllTokensAreBack() {
+        TokenBucket bucket = bucket(2, 1);
+        assertTrue(bucket.isFull(START));
+
+        bucket.tryAcquire(START);
+        assertFalse(bucket.isFull(START));
+        assertFalse(bucket.isFull(START + SECOND - 1));
+        assertTrue(bucket.isFull(START + SECOND));
+    }
+
+    @Test
+    void rejectsRatesThatWouldOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> TokenBucket.Rate.of(limit(1, 1e-12)));
+        assertThrows(IllegalArgumentException.class, () -> TokenBucket.Rate.of(limit(Integer.MAX_VALUE, 0.001)));
+    }
+
+    @Test
+    void slowestAllowedRateStillWorks() {
+        TokenBucket bucket = bucket(10, 0.001);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(bucket.tryAcquire(START));
+        }
+        assertFalse(bucket.tryAcquire(START));
+        assertTrue(bucket.tryAcquire(START + 1000 * SECOND));
+    }
+}
@@ -0,0 +1,174 @@
+package com.marc_hg.kollabspace.infrastructure.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TopicSequencerTest {
+    private static final String TOPIC = "/topic/chat/room";
+
+    private final List<Message<?>> sent = new ArrayList<>();
+
+    private TopicSequencer sequencer(int bufferSize, int maxTopics) {
+        TopicReplayProperties properties = new TopicReplayProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setMaxTopics(maxTopics);
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> sent.add(message));
+        return new TopicSequencer(template, properties);
+    }
+
+    private String header(Message<?> message, String name) {
+        return SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(name);
+    }
+
+    private String epochOf(String destination) {
+        return sent.stream()
+                .filter(m -> destination.equals(SimpMessageHeaderAccessor.getDestination(m.getHeaders())))
+                .map(m -> header(m, TopicSequencer.EPOCH_HEADER))
+                .reduce((first, last) -> last)
+                .orElseThrow();
+    }
+
+    private List<TopicSequencer.SequencedEvent> eventsSince(TopicSequencer sequencer, String destination,
+                                                           String epoch, long lastSeq) {
+        TopicSequencer.Replay replay = sequencer.beginReplay(destination);
+        try {
+            return replay.eventsSince(epoch, lastSeq);
+        } finally {
+            replay.release();
+        }
+    }
+
+    private List<Object> payloads(List<TopicSequencer.SequencedEvent> events) {
+        return events.stream().map(TopicSequencer.SequencedEvent::payload).toList();
+    }
+
+    @Test
+    void broadcastsCarryIncreasingSeqAndStableEpoch() {
+        TopicSequencer sequencer = sequencer(8, 10);
+        sequencer.publish(TOPIC, "a");
+        sequencer.publish(TOPIC, "b");
+
+        assertEquals("1", header(sent.get(0), TopicSequencer.SEQ_HEADER));
+        assertEquals("2", header(sent.get(1), TopicSequencer.SEQ_HEADER));
+        assertEquals(header(sent.get(0), TopicSequencer.EPOCH_HEADER), header(sent.get(1), TopicSequencer.EPOCH_HEADER));
+        assertNull(sent.get(1).getHeaders().get(TopicSequencer.REPLAY_SESSION_HEADER));
+    }
+
+    @Test
+    void returnsOnlyMissedEvents() {
+        TopicSequencer sequencer = sequencer(8, 10);
+        for (String payload : List.of("a", "b", "c", "d")) {
+            sequencer.publish(TOPIC, payload);
+        }
+        String epoch = epochOf(TOPIC);
+
+        assertEquals(List.of("c", "d"), payloads(eventsSince(sequencer, TOPIC, epoch, 2)));
+        assertEquals(List.of("a", "b", "c", "d"), payloads(eventsSince(sequencer, TOPIC, epoch, 0)));
+        assertEquals(List.of(), payloads(eventsSince(sequencer, TOPIC, epoch, 4)));
+    }
+
+    @Test
+    void wrapsAroundAndFallsBackOnceEventsAreOverwritten() {
+        TopicSequencer sequencer = sequencer(4, 10);
+        for (int i = 1; i <= 10; i++) {
+            sequencer.publish(TOPIC, "e" + i);
+        }
+        String epoch = epochOf(TOPIC);
+
+        // Buffer holds seq 7..10
+        assertEquals(List.of("e7", "e8", "e9", "e10"), payloads(eventsSince(sequencer, TOPIC, epoch, 6)));
+        assertEquals(List.of(10L), eventsSince(sequencer, TOPIC, epoch, 9).stream()
+                .map(TopicSequencer.SequencedEvent::seq).toList());
+        assertNull(eventsSince(sequencer, TOPIC, epoch, 5));
+    }
+
+    @Test
+    void fallsBackWhenClientIsAheadOrNegative() {
+        TopicSequencer sequencer = sequencer(8, 10);
+        sequencer.publish(TOPIC, "a");
+        String epoch = epochOf(TOPIC);
+
+        assertNull(eventsSince(sequencer, TOPIC, epoch, 2));
+        assertNull(eventsSince(sequencer, TOPIC, epoch, -1));
+    }
+
+    @Test
+    void fallsBackOnEpochMismatch() {
+        TopicSequencer sequencer = sequencer(8, 10);
+        sequencer.publish(TOPIC, "a");
+
+        assertNull(eventsSince(sequencer, TOPIC, "previous-run", 0));
+        assertNull(eventsSince(sequencer, TOPIC, null, 0));
+    }
+
+    @Test
+    void fallsBackForUnknownTopic() {
+        TopicSequencer sequencer = sequencer(8, 10);
+
+        TopicSequencer.Replay replay = sequencer.beginReplay("/topic/chat/unknown");
+        try {
+            assertNull(replay.eventsSince("any", 0));
+            assertEquals(0, replay.currentSeq());
+        } finally {
+            replay.release();
+        }
+    }
+
+    @Test
+    void replayFramesTargetOneSubscription() {
+        TopicSequencer sequencer = sequencer(8, 10);
+        sequencer.publish(TOPIC, "a");
+        sent.clear();
+
+        TopicSequencer.Replay replay = sequencer.beginReplay(TOPIC);
+        try {
+            replay.send("session-1", "sub-0", 1, "a", false);
+        } finally {
+            replay.release();
+        }
+
+        Message<?> frame = sent.getFirst();
+        assertEquals("session-1", frame.getHeaders().get(TopicSequencer.REPLAY_SESSION_HEADER));
+        assertEquals("sub-0", frame.getHeaders().get(TopicSequencer.REPLAY_SUBSCRIPTION_HEADER));
+        assertEquals("1", header(frame, TopicSequencer.SEQ_HEADER));
+        assertNull(header(frame, TopicSequencer.SNAPSHOT_HEADER));
+    }
+
+    @Test
+    void snapshotBroadcastDoesNotConsumeSequence() {
+        TopicSequencer sequencer = sequencer(8, 10);
+        sequencer.publish(TOPIC, "a");
+        sequencer.publishSnapshot(TOPIC, "state");
+        sequencer.publish(TOPIC, "b");
+
+        assertEquals("1", header(sent.get(1), TopicSequencer.SEQ_HEADER));
+        assertEquals("true", header(sent.get(1), TopicSequencer.SNAPSHOT_HEADER));
+        assertEquals("2", header(sent.get(2), TopicSequencer.SEQ_HEADER));
+        assertEquals(List.of("b"), payloads(eventsSince(sequencer, TOPIC, epochOf(TOPIC), 1)));
+    }
+
+    @Test
+    void evictsLeastRecentlyPublishedTopicBeyondLimit() {
+        TopicSequencer sequencer = sequencer(8, 2);
+        sequencer.publish("/topic/chat/a", "1");
+        String epochA = epochOf("/topic/chat/a");
+        sequencer.publish("/topic/chat/b", "1");
+        sequencer.publish("/topic/chat/c", "1");
+
+        assertEquals(2, sequencer.topicCount());
+        assertNull(eventsSince(sequencer, "/topic/chat/a", epochA, 0));
+
+        // A topic created again starts a new epoch
+        sequencer.publish("/topic/chat/a", "2");
+        assertNotEquals(epochA, epochOf("/topic/chat/a"));
+    }
+}